@@ -1,6 +1,45 @@
 package com.ikueb.fizzbuzz;
 
 public interface FiBu {
+
+    /**
+     * The kinds of rule a {@link FiBu} can apply to a number {@code n}.
+     */
+    enum Kind {
+        /**
+         * {@code n} is divisible by {@code factor}.
+         */
+        DIVISIBLE,
+        /**
+         * {@code n} mod {@code factor} is {@code remainder}.
+         */
+        RESIDUE,
+        /**
+         * {@code n}'s decimal digits contain {@code factor}.
+         */
+        DIGIT,
+        /**
+         * {@code n}'s decimal digit sum mod {@code factor} is {@code remainder}.
+         */
+        DIGIT_SUM;
+
+        /**
+         * @return {@code true} if rules of this kind repeat every {@code factor}
+         *         numbers
+         */
+        public boolean isPeriodic() {
+            return this == DIVISIBLE || this == RESIDUE;
+        }
+    }
+
     long getFactor();
     String getOutput();
+
+    default Kind getKind() {
+        return Kind.DIVISIBLE;
+    }
+
+    default long getRemainder() {
+        return 0;
+    }
 }
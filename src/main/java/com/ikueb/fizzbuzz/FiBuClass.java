@@ -2,6 +2,7 @@ package com.ikueb.fizzbuzz;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,19 +22,33 @@ public final class FiBuClass implements FiBu {
     // this must preceed any public static final instances
     private static final List<FiBu> values = new ArrayList<>();
 
+    private final Kind kind;
     private final long factor;
+    private final long remainder;
     private final String output;
 
-    private FiBuClass(long factor, final String output) {
+    private FiBuClass(final Kind kind, long factor, long remainder, final String output) {
+        this.kind = kind;
         this.factor = factor;
+        this.remainder = remainder;
         this.output = output;
     }
 
+    @Override
+    public Kind getKind() {
+        return kind;
+    }
+
     @Override
     public long getFactor() {
         return factor;
     }
 
+    @Override
+    public long getRemainder() {
+        return remainder;
+    }
+
     @Override
     public String getOutput() {
         return output;
@@ -47,13 +62,15 @@ public final class FiBuClass implements FiBu {
     @Override
     public boolean equals(final Object o) {
         return o instanceof FiBuClass &&
+                kind == ((FiBuClass)o).kind &&
                 Long.compare(factor, ((FiBuClass)o).factor) == 0 &&
+                Long.compare(remainder, ((FiBuClass)o).remainder) == 0 &&
                 output.equals(((FiBuClass)o).output);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(Long.valueOf(factor), output);
+        return Objects.hash(kind, Long.valueOf(factor), Long.valueOf(remainder), output);
     }
 
     /**
@@ -71,19 +88,49 @@ public final class FiBuClass implements FiBu {
         return addAll(map).iterator().next();
     }
 
+    /**
+     * Creates and validates a new instance of {@link FiBuClass} of any {@link Kind},
+     * before adding an internal reference to it.
+     *
+     * @param kind the kind of rule to apply
+     * @param factor the number to use as a factor, modulus or digit
+     * @param remainder the remainder to match, for {@link Kind#RESIDUE} and
+     *            {@link Kind#DIGIT_SUM}
+     * @param output the output to append when processing
+     * @return a new instance
+     * @see #addAll(Collection)
+     */
+    public static FiBu add(final Kind kind, long factor, long remainder,
+            final String output) {
+        return addAll(Collections.singletonList(
+                new FiBuClass(kind, factor, remainder, output))).iterator().next();
+    }
+
     /**
      * Creates and validates new instances of {@link FiBuClass},
      * before adding internal references to them.
      *
      * @param map the {@link Map} containing the number-and-output pairings
      * @return a {@link Collection} of new instances
+     * @see #addAll(Collection)
+     */
+    public static Collection<FiBu> addAll(final Map<Long, String> map) {
+        return addAll(map.entrySet().stream()
+                .map(v -> new FiBuClass(Kind.DIVISIBLE, v.getKey().longValue(), 0,
+                        v.getValue()))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Validates new instances of {@link FiBuClass},
+     * before adding internal references to them.
+     *
+     * @param result the new instances
+     * @return {@code result}
      * @see FiBuUtils#validate(java.util.function.Supplier)
      * @see FiBuUtils#validate(java.util.function.Supplier, java.util.function.Supplier)
      */
-    public static Collection<FiBu> addAll(final Map<Long, String> map) {
-        final Collection<FiBu> result = map.entrySet().stream()
-                .map(v -> new FiBuClass(v.getKey().longValue(), v.getValue()))
-                .collect(Collectors.toList());
+    private static Collection<FiBu> addAll(final Collection<FiBu> result) {
         FiBuUtils.validate(() -> { return result.stream(); });
         FiBuUtils.validate(() -> { return result.stream(); }, FiBuClass::valueStream);
         values.addAll(result);
@@ -99,6 +146,17 @@ public final class FiBuClass implements FiBu {
         return FiBuUtils.get(valueStream(), factor);
     }
 
+    /**
+     * @param kind the kind to check
+     * @param factor the value to check
+     * @param remainder the remainder to check
+     * @return an {@link Optional} container over a {@link FiBuClass} instance
+     * @see FiBuUtils#get(Stream, Kind, long, long)
+     */
+    public static Optional<FiBu> get(final Kind kind, long factor, long remainder) {
+        return FiBuUtils.get(valueStream(), kind, factor, remainder);
+    }
+
     /**
      * @param factors the values to check
      * @return a {@link Collection} of found instances, which may be less than the
@@ -120,6 +178,19 @@ public final class FiBuClass implements FiBu {
         return element.isPresent() && values.remove(element.get());
     }
 
+    /**
+     * Removes the internal reference to the rule of {@code kind}.
+     *
+     * @param kind the kind to remove
+     * @param factor the value to remove
+     * @param remainder the remainder to remove
+     * @return {@true} if the rule was removed successfully
+     */
+    public static boolean remove(final Kind kind, long factor, long remainder) {
+        final Optional<FiBu> element = get(kind, factor, remainder);
+        return element.isPresent() && values.remove(element.get());
+    }
+
     /**
      * Removes all internal references.
      */
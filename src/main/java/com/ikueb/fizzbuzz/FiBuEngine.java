@@ -0,0 +1,221 @@
+package com.ikueb.fizzbuzz;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An execution strategy for processing a range of numbers with a snapshot of
+ * {@link FiBu} rules. Each instance is chosen by {@link #select(long, List)}
+ * from a simple cost model over the rule count, their LCM and the range width,
+ * and decides whether to:
+ * <ul>
+ * <li>run sequentially, streaming outputs one by one, or in parallel, buffering
+ * outputs in ordered chunks</li>
+ * <li>look up outputs from a period table or evaluate the rules of every number</li>
+ * </ul>
+ * The per-operation costs default to typical figures, and can be measured by a
+ * short {@link #calibrate()} run, which also happens on startup when the
+ * {@value #CALIBRATE_PROPERTY} system property is {@code true}.
+ */
+public final class FiBuEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(FiBuEngine.class);
+
+    public static final String CALIBRATE_PROPERTY = "fizzbuzz.calibrate";
+
+    /**
+     * The largest LCM for which a period table will be built.
+     */
+    static final int TABLE_LIMIT = 1 << 16;
+
+    /**
+     * The number of outputs buffered at a time when running in parallel.
+     */
+    static final int CHUNK_SIZE = 1 << 16;
+
+    /**
+     * The number of outputs evaluated by each parallel task within a chunk.
+     */
+    static final int SLICE_SIZE = 1 << 12;
+
+    /**
+     * The estimated cost (in nanoseconds) from which running in parallel
+     * outweighs the overhead of splitting and buffering.
+     */
+    static final double PARALLEL_THRESHOLD = 1_000_000;
+
+    private static final int CALIBRATION_SIZE = 1 << 20;
+
+    private static volatile double ruleCost = 2.0;
+    private static volatile double lookupCost = 1.0;
+    private static volatile long blackhole;
+
+    static {
+        if (Boolean.getBoolean(CALIBRATE_PROPERTY)) {
+            calibrate();
+        }
+    }
+
+    private final boolean parallel;
+    private final long period;
+    private final FiBuRules rules;
+    private final long[] table;
+
+    private FiBuEngine(boolean parallel, long period, final FiBuRules rules) {
+        this.parallel = parallel;
+        this.period = period;
+        this.rules = rules;
+        this.table = period == 0 ? null : rules.table((int) period);
+    }
+
+    /**
+     * @return {@code true} if numbers are processed in parallel, with outputs
+     *         buffered in ordered chunks, instead of streamed one by one
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * @return {@code true} if outputs are looked up from a period table
+     */
+    public boolean isPeriodic() {
+        return period != 0;
+    }
+
+    /**
+     * Processes the numbers from {@code from} (inclusive) to {@code to} (exclusive),
+     * passing each output in order to {@code consumer}.
+     *
+     * @param from the first number
+     * @param to the number to stop before
+     * @param consumer the {@link Consumer} to pass the outputs to
+     */
+    public void process(long from, long to, final Consumer<? super String> consumer) {
+        if (!parallel) {
+            final FiBuRules.Cursor cursor = rules.cursor(from, table);
+            for (long i = from; i < to; i++) {
+                consumer.accept(cursor.next());
+            }
+            return;
+        }
+        for (long i = from; i < to; ) {
+            final long chunk = i;
+            final long remaining = to - chunk;
+            final int size = remaining > 0 && remaining < CHUNK_SIZE ? (int) remaining
+                    : CHUNK_SIZE;
+            IntStream.range(0, (size + SLICE_SIZE - 1) / SLICE_SIZE).parallel()
+                    .mapToObj(v -> slice(chunk + (long) v * SLICE_SIZE,
+                            Math.min(SLICE_SIZE, size - v * SLICE_SIZE)))
+                    .collect(Collectors.toList())
+                    .forEach(v -> { for (final String output : v) consumer.accept(output); });
+            i += size;
+        }
+    }
+
+    /**
+     * @param from the first number
+     * @param size the number of outputs
+     * @return the outputs of the numbers from {@code from}
+     */
+    private String[] slice(long from, int size) {
+        final FiBuRules.Cursor cursor = rules.cursor(from, table);
+        final String[] result = new String[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = cursor.next();
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return (parallel ? "parallel" : "sequential") + ", "
+                + (period == 0 ? "per-number" : "period-table[" + period + "]") + ", "
+                + (parallel ? "buffered" : "streaming");
+    }
+
+    /**
+     * Selects the cheapest strategy for the given range and rules, according to:
+     * <ul>
+     * <li>per-number evaluation costs one rule evaluation per rule per number</li>
+     * <li>a period table of the periodic rules costs one rule evaluation per
+     * periodic rule per residue, plus one lookup and the evaluation of the other
+     * rules per number, and is only considered when the periodic rules' LCM is
+     * within {@link #TABLE_LIMIT} and less than the range width</li>
+     * <li>running in parallel is chosen when the estimate reaches
+     * {@link #PARALLEL_THRESHOLD} and more than one processor is available, which
+     * always buffers outputs in ordered chunks of {@link #CHUNK_SIZE}, while running
+     * sequentially always streams them</li>
+     * </ul>
+     *
+     * @param width the number of numbers to process
+     * @param rules the rules to process with
+     * @return the selected strategy
+     */
+    public static FiBuEngine select(long width, final List<? extends FiBu> rules) {
+        return select(width, rules, null);
+    }
+
+    /**
+     * @param width the number of numbers to process
+     * @param rules the rules to process with
+     * @param parallel whether to run in parallel, or {@code null} to select by cost
+     * @return the selected strategy
+     * @see #select(long, List)
+     */
+    static FiBuEngine select(long width, final List<? extends FiBu> rules,
+            final Boolean parallel) {
+        final FiBuRules compiled = new FiBuRules(rules);
+        final long lcm = compiled.lcm(TABLE_LIMIT);
+        final double perNumber = (double) width * compiled.size() * ruleCost;
+        final int others = compiled.size() - compiled.periodicSize();
+        final double periodic = lcm > TABLE_LIMIT || lcm >= width ? Double.MAX_VALUE
+                : (double) lcm * compiled.periodicSize() * ruleCost
+                        + width * (lookupCost + others * ruleCost);
+        final double cost = Math.min(perNumber, periodic);
+        final FiBuEngine result = new FiBuEngine(parallel != null ? parallel.booleanValue()
+                : cost >= PARALLEL_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1,
+                periodic < perNumber ? lcm : 0, compiled);
+        log.debug("{} rule(s), {} periodic, LCM {}, width {}, estimated {} ns: {}",
+                Integer.valueOf(compiled.size()), Integer.valueOf(compiled.periodicSize()),
+                lcm > TABLE_LIMIT ? "> " + TABLE_LIMIT : Long.valueOf(lcm),
+                Long.valueOf(width), Long.valueOf((long) cost), result);
+        return result;
+    }
+
+    /**
+     * Measures the per-operation costs used by {@link #select(long, List)} with a
+     * short run of evaluating rules and looking up a period table.
+     */
+    public static void calibrate() {
+        final FiBuRules rules = new FiBuRules(FiBuEnum.valueStream()
+                .collect(Collectors.toList()));
+        final long[] table = rules.table((int) rules.lcm(TABLE_LIMIT));
+        long result = 0;
+        for (int run = 0; run < 2; run++) {
+            long start = System.nanoTime();
+            final FiBuRules.Cursor evaluating = rules.cursor(1, null);
+            for (int i = 0; i < CALIBRATION_SIZE; i++) {
+                result += evaluating.next().length();
+            }
+            final long ruleTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            final FiBuRules.Cursor lookingUp = rules.cursor(1, table);
+            for (int i = 0; i < CALIBRATION_SIZE; i++) {
+                result += lookingUp.next().length();
+            }
+            final long lookupTime = System.nanoTime() - start;
+            lookupCost = Math.max(0.1, (double) lookupTime / CALIBRATION_SIZE);
+            ruleCost = Math.max(0.1, (double) (ruleTime - lookupTime)
+                    / CALIBRATION_SIZE / rules.size());
+        }
+        blackhole = result;
+        log.debug("Calibrated: rule {} ns, lookup {} ns",
+                Double.valueOf(ruleCost), Double.valueOf(lookupCost));
+    }
+}
@@ -14,7 +14,7 @@ public class FiBuMain {
     public static void main(String[] args) {
         FiBuUtils.process(parse(args.length > 0 ? args[0] : null, 1),
                 parse(args.length > 1 ? args[1] : null, 100),
-                SOURCE).forEach(System.out::println);
+                SOURCE, System.out::println);
     }
 
     /**
@@ -0,0 +1,337 @@
+package com.ikueb.fizzbuzz;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+
+import com.ikueb.fizzbuzz.FiBu.Kind;
+
+/**
+ * A snapshot of {@link FiBu} rules compiled into flat arrays per {@link Kind},
+ * from which a {@link Cursor} evaluates consecutive numbers incrementally.
+ * Each rule is one bit of a match mask of {@code long} words, in the order of the
+ * rules, so that outputs stay concatenated in that order however the bits are found.
+ */
+final class FiBuRules {
+
+    /**
+     * The most rules for which every output concatenation is cached.
+     */
+    private static final int CACHE_RULES = 16;
+
+    /**
+     * The largest decimal digit sum of a {@code long}.
+     */
+    private static final int MAX_DIGIT_SUM = 9 * 19;
+
+    private final String[] outputs;
+    private final int words;
+    private final int[] periodicRules;
+    private final long[] periodicFactors;
+    private final long[] periodicRemainders;
+    private final int[] digitRules;
+    private final int[] digits;
+    private final long[] digitSumMasks;
+    private final String[] cache;
+
+    FiBuRules(final List<? extends FiBu> rules) {
+        this.outputs = rules.stream().map(FiBu::getOutput).toArray(String[]::new);
+        this.words = Math.max(1, (outputs.length + Long.SIZE - 1) / Long.SIZE);
+        this.periodicRules = indexes(rules, Kind::isPeriodic);
+        this.periodicFactors = mapToLong(rules, periodicRules, FiBu::getFactor);
+        this.periodicRemainders = mapToLong(rules, periodicRules, FiBu::getRemainder);
+        this.digitRules = indexes(rules, Kind.DIGIT::equals);
+        this.digits = IntStream.of(digitRules)
+                .map(j -> (int) rules.get(j).getFactor()).toArray();
+        this.digitSumMasks = new long[(MAX_DIGIT_SUM + 1) * words];
+        for (final int j : indexes(rules, Kind.DIGIT_SUM::equals)) {
+            final FiBu rule = rules.get(j);
+            for (int sum = 0; sum <= MAX_DIGIT_SUM; sum++) {
+                if (sum % rule.getFactor() == rule.getRemainder()) {
+                    setBit(digitSumMasks, sum * words, j);
+                }
+            }
+        }
+        this.cache = outputs.length <= CACHE_RULES ? new String[1 << outputs.length] : null;
+    }
+
+    /**
+     * @param rules the rules to check
+     * @param filter the {@link Predicate} to filter the kinds with
+     * @return the indexes of the rules of the filtered kinds
+     */
+    private static int[] indexes(final List<? extends FiBu> rules,
+            final Predicate<Kind> filter) {
+        return IntStream.range(0, rules.size())
+                .filter(j -> filter.test(rules.get(j).getKind())).toArray();
+    }
+
+    /**
+     * @param rules the rules to map
+     * @param indexes the indexes of the rules to map
+     * @param mapper the {@link ToLongFunction} to map with
+     * @return the mapped values of the rules of {@code indexes}
+     */
+    private static long[] mapToLong(final List<? extends FiBu> rules, final int[] indexes,
+            final ToLongFunction<FiBu> mapper) {
+        return IntStream.of(indexes).mapToObj(rules::get).mapToLong(mapper).toArray();
+    }
+
+    /**
+     * Sets the bit of rule {@code j} in the mask starting at {@code offset}.
+     *
+     * @param mask the mask words
+     * @param offset the index of the mask's first word
+     * @param j the rule to set
+     */
+    private static void setBit(final long[] mask, int offset, int j) {
+        mask[offset + j / Long.SIZE] |= 1L << j;
+    }
+
+    /**
+     * @return the number of rules
+     */
+    int size() {
+        return outputs.length;
+    }
+
+    /**
+     * @return the number of rules that repeat every LCM of their {@code factor}s
+     */
+    int periodicSize() {
+        return periodicRules.length;
+    }
+
+    /**
+     * @param limit the value to stop computing beyond
+     * @return the least common multiple of the periodic rules' {@code factor}s, or a
+     *         value greater than {@code limit} if it exceeds that
+     */
+    long lcm(long limit) {
+        long result = 1;
+        for (final long factor : periodicFactors) {
+            if (factor > limit) {
+                return limit + 1;
+            }
+            result = result / gcd(result, factor) * factor;
+            if (result > limit) {
+                return limit + 1;
+            }
+        }
+        return result;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    /**
+     * @param period the LCM of the periodic rules' {@code factor}s
+     * @return the match masks of the periodic rules for each residue of {@code period},
+     *         one after another
+     * @see #lcm(long)
+     */
+    long[] table(int period) {
+        final Cursor cursor = cursor(0, null);
+        final long[] result = new long[period * words];
+        for (int r = 0; r < period; r++) {
+            cursor.periodicMask(result, r * words);
+            cursor.advance();
+        }
+        return result;
+    }
+
+    /**
+     * @param start the first number to evaluate
+     * @param table the periodic match masks of each residue, or {@code null} to
+     *            evaluate each periodic rule
+     * @return a new {@link Cursor}
+     * @see #table(int)
+     */
+    Cursor cursor(long start, final long[] table) {
+        return new Cursor(start, table);
+    }
+
+    /**
+     * @param mask the rules matched, at least one
+     * @return a concatenation of the outputs of the matched rules, in rule order
+     */
+    private String output(final long[] mask) {
+        if (words == 1 && Long.bitCount(mask[0]) == 1) {
+            return outputs[Long.numberOfTrailingZeros(mask[0])];
+        }
+        // racy but benign: any thread computes an equal, immutable value
+        String result = cache == null ? null : cache[(int) mask[0]];
+        if (result == null) {
+            final StringBuilder builder = new StringBuilder();
+            for (int w = 0; w < words; w++) {
+                for (long v = mask[w]; v != 0; v &= v - 1) {
+                    builder.append(outputs[w * Long.SIZE + Long.numberOfTrailingZeros(v)]);
+                }
+            }
+            result = builder.toString();
+            if (cache != null) {
+                cache[(int) mask[0]] = result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates consecutive numbers without dividing: each periodic rule tracks its
+     * residue (or only the period table's index is tracked, when given), and the
+     * decimal digits, their counts and their sum are updated in place as numbers
+     * advance. Digit rules check the digit counts, and digit sum rules look up the
+     * rules matching the current sum. Outputs of several rules are only allocated
+     * once per combination, unless there are more than {@value FiBuRules#CACHE_RULES}
+     * rules.
+     */
+    final class Cursor {
+
+        private static final int WIDTH = 20;
+
+        private final long[] table;
+        private final long[] mask = new long[words];
+        private final long[] residues = new long[periodicFactors.length];
+        private final char[] buffer = new char[WIDTH + 1];
+        private final int[] counts = new int[10];
+        private long value;
+        private int index;
+        private int start;
+        private int sum;
+        private boolean started;
+
+        private Cursor(long value, final long[] table) {
+            this.table = table;
+            this.value = value;
+            if (table != null) {
+                index = (int) Math.floorMod(value, (long) (table.length / words)) * words;
+            } else {
+                for (int j = 0; j < periodicFactors.length; j++) {
+                    residues[j] = Math.floorMod(value, periodicFactors[j]);
+                }
+            }
+            final String digits = Long.toString(value);
+            start = buffer.length - digits.length() + (value < 0 ? 1 : 0);
+            for (int i = start; i < buffer.length; i++) {
+                buffer[i] = digits.charAt(i - buffer.length + digits.length());
+                counts[buffer[i] - '0']++;
+                sum += buffer[i] - '0';
+            }
+        }
+
+        /**
+         * @return the output of the current number, before advancing to the next one
+         */
+        String next() {
+            if (started) {
+                advance();
+            }
+            started = true;
+            if (table == null) {
+                periodicMask(mask, 0);
+            } else {
+                System.arraycopy(table, index, mask, 0, words);
+            }
+            if (digitMask()) {
+                return output(mask);
+            }
+            if (value >= 0) {
+                return new String(buffer, start, buffer.length - start);
+            }
+            buffer[start - 1] = '-';
+            return new String(buffer, start - 1, buffer.length - start + 1);
+        }
+
+        /**
+         * @param target the mask words to replace with the periodic rules matched
+         * @param offset the index of the mask's first word
+         */
+        private void periodicMask(final long[] target, int offset) {
+            for (int w = 0; w < words; w++) {
+                target[offset + w] = 0;
+            }
+            for (int j = 0; j < residues.length; j++) {
+                if (residues[j] == periodicRemainders[j]) {
+                    setBit(target, offset, periodicRules[j]);
+                }
+            }
+        }
+
+        /**
+         * Adds the digit and digit sum rules matched to {@link #mask}.
+         *
+         * @return {@code true} if any rule is matched
+         */
+        private boolean digitMask() {
+            long any = 0;
+            for (int w = 0; w < words; w++) {
+                any |= mask[w] |= digitSumMasks[sum * words + w];
+            }
+            for (int j = 0; j < digits.length; j++) {
+                if (counts[digits[j]] != 0) {
+                    setBit(mask, 0, digitRules[j]);
+                    any = 1;
+                }
+            }
+            return any != 0;
+        }
+
+        private void advance() {
+            if (table != null) {
+                index = index == table.length - words ? 0 : index + words;
+            } else {
+                for (int j = 0; j < residues.length; j++) {
+                    if (++residues[j] == periodicFactors[j]) {
+                        residues[j] = 0;
+                    }
+                }
+            }
+            if (value++ >= 0) {
+                increment();
+            } else {
+                decrement();
+            }
+        }
+
+        /**
+         * Adds one to the decimal digits, carrying over any trailing 9s.
+         */
+        private void increment() {
+            int i = buffer.length - 1;
+            for (; i >= start && buffer[i] == '9'; i--) {
+                set(i, '0');
+            }
+            if (i < start) {
+                start = i;
+                buffer[i] = '0';
+                counts[0]++;
+            }
+            set(i, (char) (buffer[i] + 1));
+        }
+
+        /**
+         * Subtracts one from the decimal digits of a negative number, borrowing
+         * from any trailing 0s and dropping a leading 0.
+         */
+        private void decrement() {
+            int i = buffer.length - 1;
+            for (; buffer[i] == '0'; i--) {
+                set(i, '9');
+            }
+            set(i, (char) (buffer[i] - 1));
+            if (buffer[start] == '0' && start < buffer.length - 1) {
+                counts[0]--;
+                start++;
+            }
+        }
+
+        private void set(int i, char digit) {
+            counts[buffer[i] - '0']--;
+            counts[digit - '0']++;
+            sum += digit - buffer[i];
+            buffer[i] = digit;
+        }
+    }
+}
@@ -1,15 +1,19 @@
 package com.ikueb.fizzbuzz;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
+import com.ikueb.fizzbuzz.FiBu.Kind;
+
 /**
  * Utilities class for performing on {@link FiBu} elements.
  */
@@ -23,25 +27,33 @@ public enum FiBuUtils {
      * @param b the sequence's other boundary
      * @param source the source of the processing {@link Stream}
      * @return the outcome
-     * @see #process(long, Stream)
+     * @see #process(long, long, Supplier, Consumer)
      */
     public static Collection<String> process(long a, long b,
             final Supplier<Stream<? extends FiBu>> source) {
-        return LongStream.range(Math.min(a, b), Math.max(a, b))
-                .mapToObj(i -> process(i, source.get()))
-                .collect(Collectors.toList());
+        final List<String> result = new ArrayList<>();
+        process(a, b, source, result::add);
+        return result;
     }
 
     /**
-     * @param i the number to handle
-     * @param source the {@link Stream} to process on the number
-     * @return a concatenation of outputs of {@code i}'s factors, or {@code i}
+     * Creates a sequence of numbers between {@code a} and {@code b}
+     * and process them using the {@code source} of {@link Stream},
+     * with the {@link FiBuEngine} selected for the sequence's width
+     * and a snapshot of {@code source}.
+     * @param a one of the sequence's boundary
+     * @param b the sequence's other boundary
+     * @param source the source of the processing {@link Stream}
+     * @param consumer the {@link Consumer} to pass the outcome to, in order
+     * @see FiBuEngine#select(long, List)
      */
-    private static String process(long i,
-            final Stream<? extends FiBu> source) {
-        final String result = source.filter(v -> i % v.getFactor() == 0)
-                .map(v -> v.getOutput()).collect(Collectors.joining());
-        return result.isEmpty() ? Long.toString(i) : result;
+    public static void process(long a, long b,
+            final Supplier<Stream<? extends FiBu>> source,
+            final Consumer<? super String> consumer) {
+        final long from = Math.min(a, b);
+        final long to = Math.max(a, b);
+        FiBuEngine.select(to - from, source.get().collect(Collectors.toList()))
+                .process(from, to, consumer);
     }
 
     /**
@@ -59,9 +71,16 @@ public enum FiBuUtils {
     /**
      * Validates the incoming {@link Stream} according to the following rules:
      * <ul>
-     * <li>{@code factor} cannot be less than 2</li>
+     * <li>{@code kind} cannot be null</li>
+     * <li>{@code factor} cannot be less than 2, or not a digit for
+     * {@link Kind#DIGIT}</li>
+     * <li>{@code remainder} must be 0 for {@link Kind#DIVISIBLE} and
+     * {@link Kind#DIGIT}, or else within 0 and {@code factor}</li>
      * <li>{@code output} cannot be null, empty, or all whitespaces</li>
-     * <li>All {@code factor}s cannot be repeated or factor of another</li>
+     * <li>All {@link Kind#DIVISIBLE} {@code factor}s, including those of
+     * {@link Kind#RESIDUE} with a {@code remainder} of 0, cannot be repeated or
+     * factor of another</li>
+     * <li>All other rules cannot be repeated</li>
      * <li>All {@code ouput}s cannot be repeated</li>
      * </ul>
      *
@@ -73,11 +92,18 @@ public enum FiBuUtils {
      */
     public static boolean validate(final Supplier<Stream<? extends FiBu>> incoming,
             final Supplier<Stream<? extends FiBu>> current) {
-        throwIf(incoming.get(), v -> v.getFactor() < 2, "factor < 2");
+        throwIf(incoming.get(), v -> v.getKind() == null, "kind null");
+        throwIf(incoming.get(), v -> v.getKind() == Kind.DIGIT
+                && (v.getFactor() < 0 || v.getFactor() > 9), "digit not within 0 and 9");
+        throwIf(incoming.get(), v -> v.getKind() != Kind.DIGIT && v.getFactor() < 2,
+                "factor < 2");
+        throwIf(incoming.get(), v -> !isRemainder(v), "remainder out of range");
         throwIf(incoming.get(), v -> Objects.toString(v.getOutput(), "").trim().isEmpty(),
                 "output null, empty or all whitespaces");
         incoming.get().forEach(a -> throwIf(current.get(), b -> isFactor(a, b),
                 "same/factor/multiple of " + a));
+        incoming.get().forEach(a -> throwIf(current.get(), b -> isSameRule(a, b),
+                "same rule as " + a));
         incoming.get().forEach(a -> throwIf(current.get(), b -> isSameOutput(a, b),
                 "same output as " + a));
         return true;
@@ -87,20 +113,36 @@ public enum FiBuUtils {
      * @param source the {@link Stream} to check
      * @param factor the value to check
      * @return an {@link Optional} container over an instance of {@link FiBu}
+     *         that is a divisibility rule
+     * @see #isDivisible(FiBu)
      */
     public static Optional<FiBu> get(final Stream<? extends FiBu> source, long factor) {
         return getAll(source, factor).stream().findFirst();
     }
 
+    /**
+     * @param source the {@link Stream} to check
+     * @param kind the kind to check
+     * @param factor the value to check
+     * @param remainder the remainder to check
+     * @return an {@link Optional} container over an instance of {@link FiBu}
+     */
+    public static Optional<FiBu> get(final Stream<? extends FiBu> source,
+            final Kind kind, long factor, long remainder) {
+        return source.filter(v -> v.getKind() == kind && v.getFactor() == factor
+                && v.getRemainder() == remainder).findFirst().map(v -> (FiBu) v);
+    }
+
     /**
      * @param source the {@link Stream} to check
      * @param factors the values to check
-     * @return a {@link Collection} of found instances, which may be less than the
-     *         number of {@code factors}
+     * @return a {@link Collection} of found instances that are divisibility rules,
+     *         which may be less than the number of {@code factors}
+     * @see #isDivisible(FiBu)
      */
     public static Collection<FiBu> getAll(final Stream<? extends FiBu> source,
             long... factors) {
-        return source.filter(v -> Arrays.stream(factors)
+        return source.filter(v -> isDivisible(v) && Arrays.stream(factors)
                 .anyMatch(f -> v.getFactor() == f))
                 .collect(Collectors.toList());
     }
@@ -108,12 +150,50 @@ public enum FiBuUtils {
     /**
      * @param a one {@link FiBu}
      * @param b other {@link FiBu}
-     * @return true if one is a factor of the other
+     * @return true if both are divisibility rules and one is a factor of the other
+     * @see #isDivisible(FiBu)
      */
     private static boolean isFactor(final FiBu a, final FiBu b) {
         final long a1 = a.getFactor();
         final long b1 = b.getFactor();
-        return a != b && Math.max(a1, b1) % Math.min(a1, b1) == 0;
+        return a != b && isDivisible(a) && isDivisible(b)
+                && Math.max(a1, b1) % Math.min(a1, b1) == 0;
+    }
+
+    /**
+     * @param a one {@link FiBu}
+     * @param b other {@link FiBu}
+     * @return true if neither are divisibility rules and both apply the same rule
+     * @see #isDivisible(FiBu)
+     */
+    private static boolean isSameRule(final FiBu a, final FiBu b) {
+        return a != b && !isDivisible(a) && a.getKind() == b.getKind()
+                && a.getFactor() == b.getFactor() && a.getRemainder() == b.getRemainder();
+    }
+
+    /**
+     * @param value the {@link FiBu} to check
+     * @return true if {@code value} is {@link Kind#DIVISIBLE}, or {@link Kind#RESIDUE}
+     *         with a {@code remainder} of 0
+     */
+    private static boolean isDivisible(final FiBu value) {
+        return value.getKind() == Kind.DIVISIBLE
+                || value.getKind() == Kind.RESIDUE && value.getRemainder() == 0;
+    }
+
+    /**
+     * @param value the {@link FiBu} to check
+     * @return true if {@code remainder} is valid for the {@code kind}
+     */
+    private static boolean isRemainder(final FiBu value) {
+        final long remainder = value.getRemainder();
+        switch (value.getKind()) {
+        case RESIDUE:
+        case DIGIT_SUM:
+            return remainder >= 0 && remainder < value.getFactor();
+        default:
+            return remainder == 0;
+        }
     }
 
     /**
@@ -146,6 +226,12 @@ public enum FiBuUtils {
      * @return the {@link String} representation
      */
     public static String toString(final String prefix, final FiBu value) {
-        return prefix + "[" + value.getFactor() + "; " + value.getOutput() + "]";
+        final Kind kind = value.getKind();
+        if (kind == null || kind == Kind.DIVISIBLE) {
+            return prefix + "[" + value.getFactor() + "; " + value.getOutput() + "]";
+        }
+        return prefix + "[" + kind + " " + (kind == Kind.DIGIT ? ""
+                : value.getRemainder() + " mod ") + value.getFactor() + "; "
+                + value.getOutput() + "]";
     }
 }
@@ -10,11 +10,13 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -24,6 +26,8 @@ import java.util.stream.Stream;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import com.ikueb.fizzbuzz.FiBu.Kind;
+
 public class FiBuTest {
 
     private static void assertBoolean(boolean actual, boolean expected) {
@@ -74,6 +78,132 @@ public class FiBuTest {
         assertBoolean(FiBuClass.valueStream().findAny().isPresent(), false);
     }
 
+    /**
+     * Tests for selecting a {@link FiBuEngine} according to the rules and range width.
+     */
+    @Test
+    public void testFiBuEngineSelection() {
+        final List<FiBu> rules = FiBuMain.ENUM.get().collect(Collectors.toList());
+        assertBoolean(FiBuEngine.select(10, rules).isPeriodic(), false);
+        assertBoolean(FiBuEngine.select(1_000_000, rules).isPeriodic(), true);
+        FiBuClass.reset();
+        FiBuClass.add(1_000_003, "Big");
+        assertBoolean(FiBuEngine.select(1_000_000, FiBuMain.COMBINED.get()
+                .collect(Collectors.toList())).isPeriodic(), false);
+        FiBuClass.reset();
+        FiBuClass.add(Kind.DIGIT, 7, 0, "Lucky");
+        assertBoolean(FiBuEngine.select(1_000_000, FiBuMain.COMBINED.get()
+                .collect(Collectors.toList())).isPeriodic(), true);
+        FiBuClass.reset();
+    }
+
+    /**
+     * Tests that {@link FiBuEngine} runs a wide range in parallel when more than one
+     * processor is available, and that the buffered (parallel) processing of the range
+     * gives the same outcome as the streamed (sequential) processing of its chunks.
+     */
+    @Test
+    public void testFiBuEngineProcessing() {
+        FiBuClass.reset();
+        FiBuClass.add(7, "Jazz");
+        final long end = 1 << 21;
+        final long chunk = FiBuEngine.CHUNK_SIZE;
+        final boolean parallel = Runtime.getRuntime().availableProcessors() > 1;
+        final List<FiBu> rules = FiBuMain.COMBINED.get().collect(Collectors.toList());
+        assertBoolean(FiBuEngine.select(end - 1, rules).isParallel(), parallel);
+        assertBoolean(FiBuEngine.select(chunk, rules).isParallel(), false);
+        final List<String> streamed = new ArrayList<>();
+        for (long i = 1; i < end; i += chunk) {
+            FiBuUtils.process(i, Math.min(i + chunk, end), FiBuMain.COMBINED, streamed::add);
+        }
+        final List<String> buffered = new ArrayList<>();
+        FiBuEngine.select(end - 1, rules, Boolean.TRUE).process(1, end, buffered::add);
+        assertThat(streamed, equalTo(buffered));
+        assertThat(streamed, equalTo(FiBuUtils.process(1, end, FiBuMain.COMBINED)));
+        assertThat(streamed, equalTo(LongStream.range(1, end).mapToObj(v -> {
+            final String result = (v % 3 == 0 ? FiBuEnum.THREE.getOutput() : "")
+                    + (v % 5 == 0 ? FiBuEnum.FIVE.getOutput() : "")
+                    + (v % 7 == 0 ? "Jazz" : "");
+            return result.isEmpty() ? Long.toString(v) : result; })
+                .collect(Collectors.toList())));
+        FiBuClass.reset();
+    }
+
+    /**
+     * Tests that processing a wide range up to {@link Long#MAX_VALUE} ends,
+     * with the last chunk of the buffered (parallel) path not overflowing.
+     */
+    @Test(timeOut = 60_000)
+    public void testFiBuEngineProcessingUpToMax() {
+        final long start = Long.MAX_VALUE - 1_100_000;
+        final List<FiBu> rules = FiBuMain.ENUM.get().collect(Collectors.toList());
+        final FiBuEngine engine = FiBuEngine.select(Long.MAX_VALUE - start, rules,
+                Boolean.TRUE);
+        assertBoolean(engine.isParallel(), true);
+        final List<String> result = new ArrayList<>();
+        engine.process(start, Long.MAX_VALUE, result::add);
+        assertThat(Integer.valueOf(result.size()), equalTo(Integer.valueOf(1_100_000)));
+        assertThat(result.get(0), equalTo(Long.toString(start)));
+        assertThat(result.get(result.size() - 1), equalTo(FiBuEnum.THREE.getOutput()));
+    }
+
+    /**
+     * Tests for processing more rules than a single {@code long} match mask holds,
+     * with matches across both mask words kept in rule order.
+     */
+    @Test
+    public void testFiBuClassManyRules() {
+        FiBuClass.reset();
+        LongStream.iterate(7, v -> v + 2)
+                .filter(v -> LongStream.rangeClosed(3, (long) Math.sqrt(v))
+                        .noneMatch(f -> v % f == 0))
+                .limit(65).forEach(v -> FiBuClass.add(v, "P" + v));
+        FiBuClass.add(Kind.DIGIT, 9, 0, "Nine");
+        final List<FiBu> rules = FiBuMain.COMBINED.get().collect(Collectors.toList());
+        assertBoolean(rules.size() > Long.SIZE, true);
+        assertThat(FiBuUtils.process(1, 2000, FiBuMain.COMBINED),
+                equalTo(LongStream.range(1, 2000).mapToObj(v -> {
+                    final String result = rules.stream().filter(r -> r.getKind() == Kind.DIGIT
+                            ? Long.toString(v).indexOf('0' + (int) r.getFactor()) >= 0
+                            : v % r.getFactor() == 0)
+                            .map(FiBu::getOutput).collect(Collectors.joining());
+                    return result.isEmpty() ? Long.toString(v) : result; })
+                        .collect(Collectors.toList())));
+        FiBuClass.reset();
+    }
+
+    /**
+     * Tests for processing each {@link Kind} of {@link FiBuClass} instances,
+     * across negative numbers and a change in the number of digits.
+     */
+    @Test
+    public void testFiBuClassKinds() {
+        FiBuClass.reset();
+        FiBuClass.add(Kind.RESIDUE, 4, 1, "Quad");
+        FiBuClass.add(Kind.DIGIT, 7, 0, "Lucky");
+        FiBuClass.add(Kind.DIGIT_SUM, 10, 0, "Ten");
+        final String fizz = FiBuEnum.THREE.getOutput();
+        final String buzz = FiBuEnum.FIVE.getOutput();
+        assertThat(FiBuUtils.process(-20, -14, FiBuMain.CLASS),
+                equalTo(Arrays.asList("-20", "QuadTen", "-18", "Lucky", "-16", "Quad")));
+        assertThat(FiBuUtils.process(95, 103, FiBuMain.COMBINED),
+                equalTo(Arrays.asList(buzz, fizz, "QuadLucky", "98", fizz, buzz,
+                        "Quad", fizz)));
+        final FiBu divisible = FiBuClass.add(7, "Jazz");
+        assertThat(FiBuClass.get(7).get(), equalTo(divisible));
+        assertThat(FiBuClass.getAll(4, 7), equalTo(Arrays.asList(divisible)));
+        assertBoolean(FiBuClass.remove(7), true);
+        assertBoolean(FiBuClass.remove(7), false);
+        assertBoolean(FiBuClass.get(Kind.DIGIT, 7, 0).isPresent(), true);
+        assertBoolean(FiBuClass.remove(Kind.DIGIT, 7, 0), true);
+        assertBoolean(FiBuClass.get(Kind.DIGIT, 7, 0).isPresent(), false);
+        final FiBu residue = FiBuClass.add(Kind.RESIDUE, 7, 0, "Jazz");
+        assertThat(FiBuClass.get(7).get(), equalTo(residue));
+        assertBoolean(FiBuClass.remove(7), true);
+        assertBoolean(FiBuClass.get(Kind.RESIDUE, 7, 0).isPresent(), false);
+        FiBuClass.reset();
+    }
+
     /**
      * Syntactic sugar to make {@link Supplier} instances more accessible.
      */
@@ -266,6 +396,72 @@ public class FiBuTest {
         }
     }
 
+    private static final String SAME_RULE_AS = "same rule as ";
+    private static final String BAD_REMAINDER = "remainder out of range";
+
+    /**
+     * Asserting that {@link IllegalStateException} is thrown for adding rules of
+     * each {@link Kind} with:
+     * <ul>
+     * <li>a {@code null} {@code kind}</li>
+     * <li>a {@code factor} that is not a digit, for {@link Kind#DIGIT}</li>
+     * <li>a {@code factor} less than 2, for {@link Kind#DIGIT_SUM}</li>
+     * <li>a {@code remainder} not less than {@code factor}</li>
+     * <li>a {@code remainder} other than 0, for {@link Kind#DIVISIBLE}</li>
+     * <li>an existing rule</li>
+     * <li>a {@link Kind#RESIDUE} of 0 with the same {@code factor} as, or a
+     * multiple of, an existing {@link Kind#DIVISIBLE} {@code factor}</li>
+     * </ul>
+     */
+    private enum KindExceptionPayload implements TestCase {
+        NULL_KIND(null, 4, 0, "kind null"),
+        INVALID_DIGIT(Kind.DIGIT, 10, 0, "digit not within 0 and 9"),
+        INVALID_MODULUS(Kind.DIGIT_SUM, 1, 0, "factor < 2"),
+        INVALID_RESIDUE(Kind.RESIDUE, 4, 4, BAD_REMAINDER),
+        INVALID_REMAINDER(Kind.DIVISIBLE, 4, 1, BAD_REMAINDER),
+        SAME_DIGIT(Kind.DIGIT, 3, 0, SAME_RULE_AS),
+        SAME_RESIDUE(Kind.RESIDUE, 3, 0, FACTOR_OF),
+        MULTIPLE_RESIDUE(Kind.RESIDUE, 6, 0, FACTOR_OF);
+
+        private final Kind kind;
+        private final long factor;
+        private final long remainder;
+        private final String expectedMessage;
+
+        /**
+         * @param kind the {@code kind} value that will throw
+         *            {@link IllegalStateException}
+         * @param factor the {@code factor} value that will throw
+         *            {@link IllegalStateException}
+         * @param remainder the {@code remainder} value that will throw
+         *            {@link IllegalStateException}
+         * @param expectedMessage the {@link IllegalStateException} message is
+         *            expected to contain this
+         */
+        private KindExceptionPayload(final Kind kind, long factor, long remainder,
+                final String expectedMessage) {
+            this.kind = kind;
+            this.factor = factor;
+            this.remainder = remainder;
+            this.expectedMessage = expectedMessage;
+        }
+
+        @Override
+        public void doTest() {
+            try {
+                FiBuClass.reset();
+                FiBuClass.add(Kind.DIGIT, 3, 0, "Three");
+                FiBuClass.add(3, "Tri");
+                FiBuClass.add(kind, factor, remainder, name());
+                throw new AssertionError();
+            } catch (final IllegalStateException e) {
+                assertThat(e.getMessage(), containsString(expectedMessage));
+            } finally {
+                FiBuClass.reset();
+            }
+        }
+    }
+
     private static final String TEST_CASES = "test-cases";
 
     @Retention(RetentionPolicy.RUNTIME)
@@ -302,4 +498,10 @@ public class FiBuTest {
     public void testException(final TestCase testCase) {
         testCase.doTest();
     }
+
+    @Test(dataProvider = TEST_CASES)
+    @Case(provider = KindExceptionPayload.class)
+    public void testKindException(final TestCase testCase) {
+        testCase.doTest();
+    }
 }